@@ -1,4 +1,6 @@
 ﻿const API_BASE = window.location.origin;
+// Primera página del listado de órdenes (servida desde el query cache de Order Service)
+const ORDERS_PAGE_SIZE = 20;
 
 const state = {
     products: [],
@@ -217,7 +219,7 @@ async function loadOrders() {
     hide(empty);
 
     try {
-        const res = await fetch(`${API_BASE}/v1/orders`, { headers: { 'Accept': 'application/json' } });
+        const res = await fetch(`${API_BASE}/v1/orders?size=${ORDERS_PAGE_SIZE}`, { headers: { 'Accept': 'application/json' } });
         if (!res.ok) throw new Error(`HTTP ${res.status}`);
         const orders = await res.json();
         state.orders = Array.isArray(orders) ? orders : [];
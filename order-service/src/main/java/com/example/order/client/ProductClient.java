@@ -1,5 +1,6 @@
 package com.example.order.client;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
@@ -19,6 +20,7 @@ public interface ProductClient {
     @Path("/{id}/decrease-stock")
     void decreaseStock(@PathParam("id") Long id, @QueryParam("quantity") int quantity);
     
+    @RegisterForReflection
     class ProductDTO {
         public Long id;
         public String name;
@@ -1,5 +1,6 @@
 package com.example.order.client;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
@@ -17,6 +18,7 @@ public interface ShippingClient {
     @Path("/calculate")
     ShippingResponse calculateShipping(ShippingRequest request);
     
+    @RegisterForReflection
     class ShippingRequest {
         public double weight;
         public double distance;
@@ -29,6 +31,7 @@ public interface ShippingClient {
         }
     }
     
+    @RegisterForReflection
     class ShippingResponse {
         public double cost;
 
@@ -0,0 +1,55 @@
+package com.example.order.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import com.example.order.model.Order;
+
+/**
+ * Publica el hit ratio del cache de segundo nivel de órdenes en /q/metrics.
+ * Los contadores crudos (hits/misses/puts) ya los expone la integración
+ * Hibernate-Micrometer; aquí solo se deriva el ratio por región.
+ */
+@ApplicationScoped
+public class OrderCacheMetrics {
+    
+    static final String QUERY_REGION = "default-query-results-region";
+    
+    @Inject
+    MeterRegistry registry;
+    
+    @Inject
+    SessionFactory sessionFactory;
+    
+    void onStart(@Observes StartupEvent event) {
+        Statistics statistics = sessionFactory.getStatistics();
+        
+        Gauge.builder("orders.cache.hit.ratio", statistics, s -> hitRatio(s, Order.class.getName()))
+            .tag("region", "order")
+            .description("Hit ratio del cache de segundo nivel para la entidad Order")
+            .register(registry);
+        
+        Gauge.builder("orders.cache.hit.ratio", statistics, s -> hitRatio(s, QUERY_REGION))
+            .tag("region", "order-list")
+            .description("Hit ratio del query cache para la primera página de órdenes")
+            .register(registry);
+    }
+    
+    private static double hitRatio(Statistics statistics, String regionName) {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+        if (region == null) {
+            return 0.0;
+        }
+        
+        long hits = region.getHitCount();
+        long total = hits + region.getMissCount();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.order.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Limitador de concurrencia adaptativo (AIMD) para un downstream.
+ *
+ * El límite crece en 1 por cada llamada que responde por debajo del umbral de
+ * latencia mientras el limitador está en uso, y se multiplica por backoffRatio
+ * cuando la latencia supera el umbral o la llamada falla por congestión (según
+ * el clasificador de drops). El resto de errores (p. ej. de negocio) solo
+ * liberan el permiso. Las peticiones que exceden el límite se rechazan de
+ * inmediato con LoadSheddingException.
+ */
+public class AdaptiveConcurrencyLimiter {
+    
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final long retryAfterSeconds;
+    private final Predicate<Throwable> isDrop;
+    
+    private double limit;
+    private int inFlight;
+    private final AtomicLong rejected = new AtomicLong();
+    
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      long latencyThresholdMillis, double backoffRatio, long retryAfterSeconds,
+                                      Predicate<Throwable> isDrop) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdMillis * 1_000_000L;
+        this.backoffRatio = backoffRatio;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.isDrop = isDrop;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+    
+    /**
+     * Ejecuta la llamada si hay capacidad y ajusta el límite según su latencia
+     */
+    public <T> T execute(Supplier<T> call) {
+        return admit(() -> observe(call));
+    }
+    
+    /**
+     * Ocupa un permiso mientras dura la llamada, sin medir su latencia. Sirve
+     * para contar como carga a quien espera una llamada compartida (coalescing).
+     */
+    public <T> T admit(Supplier<T> call) {
+        if (!tryAcquire()) {
+            rejected.incrementAndGet();
+            throw new LoadSheddingException(name, retryAfterSeconds);
+        }
+        
+        try {
+            return call.get();
+        } finally {
+            // El permiso se libera ante cualquier Throwable, no solo RuntimeException
+            release();
+        }
+    }
+    
+    /**
+     * Ajusta el límite según la latencia o el fallo de la llamada, sin ocupar
+     * permiso; el llamador debe estar dentro de admit.
+     */
+    public <T> T observe(Supplier<T> call) {
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            return call.get();
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            if (failure == null) {
+                onSuccess(System.nanoTime() - start);
+            } else if (isDrop.test(failure)) {
+                onDropped();
+            }
+        }
+    }
+    
+    public void execute(Runnable call) {
+        execute(() -> {
+            call.run();
+            return null;
+        });
+    }
+    
+    /**
+     * Rechaza de antemano si el downstream ya está saturado
+     */
+    public void checkCapacity() {
+        if (!hasCapacity()) {
+            rejected.incrementAndGet();
+            throw new LoadSheddingException(name, retryAfterSeconds);
+        }
+    }
+    
+    public synchronized boolean hasCapacity() {
+        return inFlight < (int) limit;
+    }
+    
+    private synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+    
+    private synchronized void onSuccess(long rttNanos) {
+        if (rttNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (inFlight * 2 >= limit) {
+            // Solo se crece si el límite actual se está usando
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+    
+    private synchronized void onDropped() {
+        decrease();
+    }
+    
+    private synchronized void release() {
+        inFlight--;
+    }
+    
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+    
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+    
+    public long getRejected() {
+        return rejected.get();
+    }
+}
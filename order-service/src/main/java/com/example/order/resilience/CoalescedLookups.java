@@ -0,0 +1,65 @@
+package com.example.order.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import com.example.order.client.ProductClient;
+
+import java.util.List;
+
+/**
+ * Consultas a downstreams con coalescing (single-flight): el catálogo de
+ * Product Service y las cotizaciones de Shipping Service.
+ */
+@ApplicationScoped
+public class CoalescedLookups {
+    
+    /**
+     * getAllProducts no depende del producto: todas las consultas comparten clave
+     */
+    public static final String CATALOG_KEY = "catalog";
+    
+    @Inject
+    MeterRegistry registry;
+    
+    @ConfigProperty(name = "order.coalescing.enabled", defaultValue = "true")
+    boolean enabled;
+    
+    private SingleFlight<String, List<ProductClient.ProductDTO>> productCatalog;
+    private SingleFlight<ShippingQuoteKey, Double> shippingQuotes;
+    
+    @PostConstruct
+    void init() {
+        productCatalog = register(new SingleFlight<>("product-catalog", enabled));
+        shippingQuotes = register(new SingleFlight<>("shipping-quote", enabled));
+    }
+    
+    public SingleFlight<String, List<ProductClient.ProductDTO>> productCatalog() {
+        return productCatalog;
+    }
+    
+    public SingleFlight<ShippingQuoteKey, Double> shippingQuotes() {
+        return shippingQuotes;
+    }
+    
+    private <K, V> SingleFlight<K, V> register(SingleFlight<K, V> lookup) {
+        FunctionCounter.builder("orders.coalescing.requests", lookup, SingleFlight::getRequests)
+            .tag("lookup", lookup.getName())
+            .register(registry);
+        FunctionCounter.builder("orders.coalescing.executions", lookup, SingleFlight::getExecutions)
+            .tag("lookup", lookup.getName())
+            .description("Llamadas reales al downstream")
+            .register(registry);
+        Gauge.builder("orders.coalescing.ratio", lookup, SingleFlight::getCoalescingRatio)
+            .tag("lookup", lookup.getName())
+            .register(registry);
+        return lookup;
+    }
+    
+    public record ShippingQuoteKey(double weight, double distance) {}
+}
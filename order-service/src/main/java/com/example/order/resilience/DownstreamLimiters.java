@@ -0,0 +1,103 @@
+package com.example.order.resilience;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ProcessingException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.faulttolerance.exceptions.TimeoutException;
+
+/**
+ * Limitadores de concurrencia independientes por downstream (ProductClient y
+ * ShippingClient), configurados desde application.properties.
+ */
+@ApplicationScoped
+public class DownstreamLimiters {
+    
+    @Inject
+    MeterRegistry registry;
+    
+    @ConfigProperty(name = "order.limiter.product.initial-limit", defaultValue = "20")
+    int productInitialLimit;
+    
+    @ConfigProperty(name = "order.limiter.product.max-limit", defaultValue = "200")
+    int productMaxLimit;
+    
+    @ConfigProperty(name = "order.limiter.product.latency-threshold-ms", defaultValue = "500")
+    long productLatencyThresholdMs;
+    
+    @ConfigProperty(name = "order.limiter.shipping.initial-limit", defaultValue = "20")
+    int shippingInitialLimit;
+    
+    @ConfigProperty(name = "order.limiter.shipping.max-limit", defaultValue = "200")
+    int shippingMaxLimit;
+    
+    @ConfigProperty(name = "order.limiter.shipping.latency-threshold-ms", defaultValue = "300")
+    long shippingLatencyThresholdMs;
+    
+    @ConfigProperty(name = "order.limiter.min-limit", defaultValue = "1")
+    int minLimit;
+    
+    @ConfigProperty(name = "order.limiter.backoff-ratio", defaultValue = "0.9")
+    double backoffRatio;
+    
+    @ConfigProperty(name = "order.limiter.retry-after-seconds", defaultValue = "1")
+    long retryAfterSeconds;
+    
+    private AdaptiveConcurrencyLimiter product;
+    private AdaptiveConcurrencyLimiter shipping;
+    
+    @PostConstruct
+    void init() {
+        product = register(new AdaptiveConcurrencyLimiter("product-service", productInitialLimit, minLimit,
+            productMaxLimit, productLatencyThresholdMs, backoffRatio, retryAfterSeconds,
+            DownstreamLimiters::isCongestion));
+        shipping = register(new AdaptiveConcurrencyLimiter("shipping-service", shippingInitialLimit, minLimit,
+            shippingMaxLimit, shippingLatencyThresholdMs, backoffRatio, retryAfterSeconds,
+            DownstreamLimiters::isCongestion));
+    }
+    
+    /**
+     * Solo timeouts, errores de conexión/lectura e interrupciones (@Timeout)
+     * reducen el límite. Las respuestas de error del downstream, como el 500 de
+     * Product Service por stock insuficiente, no indican congestión.
+     */
+    static boolean isCongestion(Throwable failure) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof ProcessingException
+                || t instanceof TimeoutException
+                || t instanceof java.util.concurrent.TimeoutException
+                || t instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public AdaptiveConcurrencyLimiter product() {
+        return product;
+    }
+    
+    public AdaptiveConcurrencyLimiter shipping() {
+        return shipping;
+    }
+    
+    private AdaptiveConcurrencyLimiter register(AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("orders.limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .tag("downstream", limiter.getName())
+            .register(registry);
+        Gauge.builder("orders.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .tag("downstream", limiter.getName())
+            .register(registry);
+        FunctionCounter.builder("orders.limiter.rejected", limiter, AdaptiveConcurrencyLimiter::getRejected)
+            .tag("downstream", limiter.getName())
+            .register(registry);
+        return limiter;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.order.resilience;
+
+/**
+ * Se lanza cuando un downstream alcanzó su límite de concurrencia y la
+ * petición se descarta antes de encolarse.
+ */
+public class LoadSheddingException extends RuntimeException {
+    
+    private final String downstream;
+    private final long retryAfterSeconds;
+    
+    public LoadSheddingException(String downstream, long retryAfterSeconds) {
+        super("Límite de concurrencia alcanzado para " + downstream);
+        this.downstream = downstream;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public String getDownstream() {
+        return downstream;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.order.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalescing de peticiones (single-flight): las llamadas concurrentes con la
+ * misma clave comparten una única ejecución en curso y su resultado o error.
+ * La clave se libera al terminar, por lo que no se cachea nada entre ráfagas.
+ */
+public class SingleFlight<K, V> {
+    
+    private final String name;
+    private final boolean enabled;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    
+    public SingleFlight(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+    
+    public V execute(K key, Supplier<V> call) {
+        requests.incrementAndGet();
+        if (!enabled) {
+            executions.incrementAndGet();
+            return call.get();
+        }
+        
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+        
+        executions.incrementAndGet();
+        try {
+            V value = call.get();
+            created.complete(value);
+            return value;
+        } catch (Throwable t) {
+            // Cualquier Throwable (incluidas checked lanzadas de forma "sneaky")
+            // debe liberar a los seguidores
+            created.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+    
+    private V await(CompletableFuture<V> future) {
+        try {
+            // get() y no join(): debe responder a la interrupción de @Timeout
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la llamada en curso de " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getRequests() {
+        return requests.get();
+    }
+    
+    public long getExecutions() {
+        return executions.get();
+    }
+    
+    /**
+     * Fracción de peticiones resueltas sin llamar al downstream
+     */
+    public double getCoalescingRatio() {
+        long total = requests.get();
+        return total == 0 ? 0.0 : 1.0 - (double) executions.get() / total;
+    }
+}
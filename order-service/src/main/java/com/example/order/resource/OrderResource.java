@@ -9,11 +9,14 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
 import org.eclipse.microprofile.openapi.annotations.parameters.RequestBody;
+import io.quarkus.runtime.annotations.RegisterForReflection;
 import org.jboss.logging.Logger;
 
 import com.example.order.model.Order;
+import com.example.order.resilience.LoadSheddingException;
 import com.example.order.resource.dto.CreateOrderRequest;
 import com.example.order.resource.dto.CreateOrderResponse;
+import com.example.order.resource.dto.UpdateOrderStatusRequest;
 import com.example.order.service.OrderService;
 
 import java.util.List;
@@ -26,19 +29,42 @@ import java.util.stream.Collectors;
 public class OrderResource {
     
     private static final Logger LOG = Logger.getLogger(OrderResource.class);
+    
+    private static final int MAX_PAGE_SIZE = 100;
 
     @Inject
     OrderService orderService;
 
     @GET
-    @Operation(summary = "Obtener todas las órdenes", description = "Retorna la lista completa de órdenes en orden descendente")
+    @Operation(summary = "Obtener todas las órdenes", description = "Retorna la lista de órdenes en orden descendente. Paginación opcional con page y size (máximo 100); la primera página paginada se sirve desde el query cache")
     @APIResponses(value = {
         @APIResponse(responseCode = "200", description = "Lista de órdenes obtenida exitosamente"),
+        @APIResponse(responseCode = "400", description = "Parámetros de paginación inválidos"),
         @APIResponse(responseCode = "500", description = "Error interno del servidor")
     })
-    public Response getAllOrders() {
+    public Response getAllOrders(
+        @QueryParam("page") @DefaultValue("0") int page,
+        @QueryParam("size") Integer size) {
+        if (page < 0 || (size != null && (size <= 0 || size > MAX_PAGE_SIZE))) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse("page debe ser >= 0 y size entre 1 y " + MAX_PAGE_SIZE))
+                .build();
+        }
+        
+        if (page > 0 && size == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse("size es requerido cuando page > 0"))
+                .build();
+        }
+        
+        if (size != null && (long) page * size > Integer.MAX_VALUE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse("page fuera de rango"))
+                .build();
+        }
+        
         try {
-            List<Order> orders = orderService.getAllOrders();
+            List<Order> orders = orderService.getOrders(page, size);
             
             List<CreateOrderResponse> responses = orders.stream()
                 .map(order -> {
@@ -72,7 +98,7 @@ public class OrderResource {
         @APIResponse(responseCode = "400", description = "Datos de entrada inválidos"),
         @APIResponse(responseCode = "404", description = "Producto no encontrado"),
         @APIResponse(responseCode = "409", description = "Stock insuficiente"),
-        @APIResponse(responseCode = "503", description = "Servicio externo no disponible")
+        @APIResponse(responseCode = "503", description = "Servicio externo no disponible o saturado (incluye Retry-After)")
     })
     public Response createOrder(
         @RequestBody(description = "Datos para crear la orden") CreateOrderRequest request,
@@ -133,6 +159,13 @@ public class OrderResource {
                 .entity(new ErrorResponse("Error al crear orden: " + e.getMessage()))
                 .build();
                 
+        } catch (LoadSheddingException e) {
+            LOG.warnf("Orden rechazada por carga (%s): %s", e.getDownstream(), e.getMessage());
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", e.getRetryAfterSeconds())
+                .entity(new ErrorResponse("Servicio saturado, reintente más tarde: " + e.getMessage()))
+                .build();
+                
         } catch (jakarta.ws.rs.ProcessingException e) {
             LOG.errorf("Error de comunicación con servicio externo: %s", e.getMessage());
             return Response.status(Response.Status.SERVICE_UNAVAILABLE)
@@ -178,7 +211,66 @@ public class OrderResource {
         return Response.ok(response).build();
     }
     
+    @PUT
+    @Path("/{id}/status")
+    @Operation(summary = "Actualizar estado de la orden", description = "Cambia el estado de una orden y desaloja su entrada del cache de segundo nivel. Transiciones permitidas: PENDING -> CONFIRMED|CANCELLED, CONFIRMED -> SHIPPED|CANCELLED, SHIPPED -> DELIVERED.")
+    @APIResponses(value = {
+        @APIResponse(responseCode = "200", description = "Estado actualizado exitosamente"),
+        @APIResponse(responseCode = "400", description = "Estado inválido"),
+        @APIResponse(responseCode = "404", description = "Orden no encontrada"),
+        @APIResponse(responseCode = "409", description = "Transición de estado no permitida")
+    })
+    public Response updateOrderStatus(
+        @PathParam("id") Long id,
+        @RequestBody(description = "Nuevo estado de la orden") UpdateOrderStatusRequest request) {
+        if (request == null || request.status == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse("El campo status es requerido"))
+                .build();
+        }
+        
+        Order.OrderStatus status;
+        try {
+            status = Order.OrderStatus.valueOf(request.status);
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity(new ErrorResponse("Estado inválido: " + request.status))
+                .build();
+        }
+        
+        Order order;
+        try {
+            order = orderService.updateOrderStatus(id, status);
+        } catch (OrderService.InvalidStatusTransitionException e) {
+            LOG.warnf("Transición rechazada para orden %d: %s", id, e.getMessage());
+            return Response.status(Response.Status.CONFLICT)
+                .entity(new ErrorResponse(e.getMessage()))
+                .build();
+        }
+        
+        if (order == null) {
+            LOG.warnf("Orden no encontrada con ID: %d", id);
+            return Response.status(Response.Status.NOT_FOUND)
+                .entity(new ErrorResponse("Orden no encontrada"))
+                .build();
+        }
+        
+        double totalCost = order.totalPrice + order.shippingCost;
+        CreateOrderResponse response = new CreateOrderResponse(
+            order.id,
+            order.productId,
+            order.quantity,
+            order.totalPrice,
+            order.shippingCost,
+            totalCost,
+            order.status.name()
+        );
+        
+        return Response.ok(response).build();
+    }
+    
     // DTO para respuestas de error
+    @RegisterForReflection
     public static class ErrorResponse {
         public String error;
         
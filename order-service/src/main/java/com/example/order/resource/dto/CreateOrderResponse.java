@@ -1,5 +1,8 @@
 package com.example.order.resource.dto;
 
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
 public class CreateOrderResponse {
 
     public Long id;
@@ -0,0 +1,9 @@
+package com.example.order.resource.dto;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@RegisterForReflection
+public class UpdateOrderStatusRequest {
+
+    public String status;
+}
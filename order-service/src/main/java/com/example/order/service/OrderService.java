@@ -3,15 +3,25 @@ package com.example.order.service;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Cache;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
 import jakarta.transaction.Transactional;
 import org.eclipse.microprofile.faulttolerance.CircuitBreaker;
 import org.eclipse.microprofile.faulttolerance.Retry;
 import org.eclipse.microprofile.faulttolerance.Timeout;
+import org.hibernate.jpa.HibernateHints;
 import org.jboss.logging.Logger;
 
 import com.example.order.client.ProductClient;
 import com.example.order.client.ShippingClient;
 import com.example.order.model.Order;
+import com.example.order.resilience.CoalescedLookups;
+import com.example.order.resilience.DownstreamLimiters;
+import com.example.order.resilience.LoadSheddingException;
 import com.example.order.resource.dto.CreateOrderRequest;
 import org.eclipse.microprofile.rest.client.inject.RestClient;
 
@@ -26,6 +36,9 @@ public class OrderService {
     @Inject
     EntityManager em;
     
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+    
     @Inject
     @RestClient
     ProductClient productClient;
@@ -34,6 +47,12 @@ public class OrderService {
     @RestClient
     ShippingClient shippingClient;
     
+    @Inject
+    DownstreamLimiters limiters;
+    
+    @Inject
+    CoalescedLookups lookups;
+    
     /**
      * Orquesta el flujo completo de creación de orden con tolerancia a fallos:
      * 1. Valida el producto y disponibilidad de stock
@@ -42,12 +61,18 @@ public class OrderService {
      * 4. Persiste la orden
      * 
      * Si cualquier paso falla, realiza compensating transaction (rollback de stock)
+     * 
+     * Si algún downstream está saturado la orden se rechaza antes de empezar
+     * (LoadSheddingException) en lugar de encolarse detrás de Retry/Timeout.
      */
     @Transactional
     public Order createOrder(CreateOrderRequest request) {
         LOG.infof("Iniciando creación de orden: productId=%d, quantity=%d, weight=%f, distance=%f", 
                   request.productId, request.quantity, request.weight, request.distance);
         
+        limiters.product().checkCapacity();
+        limiters.shipping().checkCapacity();
+        
         // PASO 1: Validar producto y stock con circuit breaker
         ProductClient.ProductDTO product = validateProductAndStock(request.productId, request.quantity);
         LOG.infof("Producto validado: %s, Stock disponible: %d", product.name, product.stock);
@@ -60,6 +85,8 @@ public class OrderService {
         try {
             decreaseProductStock(request.productId, request.quantity);
             LOG.infof("Stock descontado exitosamente para productId=%d", request.productId);
+        } catch (LoadSheddingException e) {
+            throw e;
         } catch (Exception e) {
             LOG.errorf("Error al descontar stock. Abortando orden. Error: %s", e.getMessage());
             throw new OrderCreationException("Error al descontar stock: " + e.getMessage());
@@ -98,18 +125,25 @@ public class OrderService {
     }
     
     /**
-     * Valida producto y stock con Circuit Breaker y Retry
+     * Valida producto y stock con Circuit Breaker, Retry y límite de concurrencia.
+     * Las consultas concurrentes comparten una sola llamada al catálogo; la
+     * búsqueda del producto y la validación de stock se hacen por petición.
      */
     @CircuitBreaker(
         requestVolumeThreshold = 5,
         failureRatio = 0.5,
         delay = 5,
-        delayUnit = ChronoUnit.SECONDS
+        delayUnit = ChronoUnit.SECONDS,
+        skipOn = LoadSheddingException.class
     )
-    @Retry(maxRetries = 2, delay = 100, delayUnit = ChronoUnit.MILLIS)
+    @Retry(maxRetries = 2, delay = 100, delayUnit = ChronoUnit.MILLIS, abortOn = LoadSheddingException.class)
     @Timeout(value = 5, unit = ChronoUnit.SECONDS)
     public ProductClient.ProductDTO validateProductAndStock(Long productId, int quantity) {
-        List<ProductClient.ProductDTO> products = productClient.getAllProducts();
+        // Cada llamador (líder o en espera) ocupa un permiso, así el límite refleja
+        // la cola real; solo la llamada del líder mide latencia
+        List<ProductClient.ProductDTO> products = limiters.product().admit(() ->
+            lookups.productCatalog().execute(CoalescedLookups.CATALOG_KEY,
+                () -> limiters.product().observe(productClient::getAllProducts)));
         
         ProductClient.ProductDTO product = products.stream()
             .filter(p -> p.id.equals(productId))
@@ -126,32 +160,39 @@ public class OrderService {
     }
     
     /**
-     * Calcula envío con Circuit Breaker
+     * Calcula envío con Circuit Breaker y límite de concurrencia.
+     * Las cotizaciones concurrentes idénticas comparten una sola llamada.
      */
     @CircuitBreaker(
         requestVolumeThreshold = 5,
         failureRatio = 0.5,
         delay = 5,
-        delayUnit = ChronoUnit.SECONDS
+        delayUnit = ChronoUnit.SECONDS,
+        skipOn = LoadSheddingException.class
     )
     @Timeout(value = 3, unit = ChronoUnit.SECONDS)
     public double calculateShippingCost(double weight, double distance) {
-        ShippingClient.ShippingRequest shippingRequest = new ShippingClient.ShippingRequest(weight, distance);
-        ShippingClient.ShippingResponse shippingResponse = shippingClient.calculateShipping(shippingRequest);
-        return shippingResponse.cost;
+        return limiters.shipping().admit(() ->
+            lookups.shippingQuotes().execute(new CoalescedLookups.ShippingQuoteKey(weight, distance), () -> {
+                ShippingClient.ShippingRequest shippingRequest = new ShippingClient.ShippingRequest(weight, distance);
+                ShippingClient.ShippingResponse shippingResponse =
+                    limiters.shipping().observe(() -> shippingClient.calculateShipping(shippingRequest));
+                return shippingResponse.cost;
+            }));
     }
     
     /**
-     * Descuenta stock con Retry y Timeout
+     * Descuenta stock con Retry, Timeout y límite de concurrencia
      */
-    @Retry(maxRetries = 2, delay = 100, delayUnit = ChronoUnit.MILLIS)
+    @Retry(maxRetries = 2, delay = 100, delayUnit = ChronoUnit.MILLIS, abortOn = LoadSheddingException.class)
     @Timeout(value = 5, unit = ChronoUnit.SECONDS)
     public void decreaseProductStock(Long productId, int quantity) {
-        productClient.decreaseStock(productId, quantity);
+        limiters.product().execute(() -> productClient.decreaseStock(productId, quantity));
     }
     
     /**
-     * Restaura stock como parte de compensating transaction
+     * Restaura stock como parte de compensating transaction.
+     * No pasa por el limitador: una compensación nunca debe descartarse.
      */
     @Retry(maxRetries = 3, delay = 200, delayUnit = ChronoUnit.MILLIS)
     public void restoreProductStock(Long productId, int quantity) {
@@ -161,13 +202,75 @@ public class OrderService {
         productClient.decreaseStock(productId, -quantity); // Negative para restaurar
     }
     
+    /**
+     * Lectura por ID servida desde el cache de segundo nivel (region Order)
+     */
     public Order getOrder(Long id) {
         return em.find(Order.class, id);
     }
     
-    public List<Order> getAllOrders() {
-        return em.createQuery("SELECT o FROM Order o ORDER BY o.id DESC", Order.class)
-                 .getResultList();
+    /**
+     * Lista de órdenes, completa si size es null. Solo la primera página de un
+     * listado paginado se marca como cacheable en el query cache; Hibernate la
+     * invalida al insertar o modificar órdenes.
+     */
+    public List<Order> getOrders(int page, Integer size) {
+        TypedQuery<Order> query = em.createQuery("SELECT o FROM Order o ORDER BY o.id DESC", Order.class);
+        
+        if (size != null) {
+            query.setFirstResult(Math.multiplyExact(page, size)).setMaxResults(size);
+            
+            if (page == 0) {
+                query.setHint(HibernateHints.HINT_CACHEABLE, Boolean.TRUE);
+            }
+        }
+        
+        return query.getResultList();
+    }
+    
+    /**
+     * Cambia el estado de la orden y desaloja su entrada del cache de segundo nivel
+     * tras el commit. La fila se bloquea (y se lee de la base, no del cache) para
+     * que dos transiciones concurrentes no validen contra el mismo estado.
+     */
+    @Transactional
+    public Order updateOrderStatus(Long id, Order.OrderStatus status) {
+        Order order = em.find(Order.class, id, LockModeType.PESSIMISTIC_WRITE);
+        if (order == null) {
+            return null;
+        }
+        
+        if (order.status == status) {
+            return order;
+        }
+        
+        if (!order.status.canTransitionTo(status)) {
+            throw new InvalidStatusTransitionException(
+                "Transición no permitida: " + order.status + " -> " + status
+            );
+        }
+        
+        LOG.infof("Transición de estado: orderId=%d, %s -> %s", id, order.status, status);
+        order.status = status;
+        evictAfterCommit(id);
+        
+        return order;
+    }
+    
+    private void evictAfterCommit(Long id) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    cache.evict(Order.class, id);
+                }
+            }
+        });
     }
     
     // Excepciones de negocio
@@ -188,4 +291,10 @@ public class OrderService {
             super(message);
         }
     }
+    
+    public static class InvalidStatusTransitionException extends RuntimeException {
+        public InvalidStatusTransitionException(String message) {
+            super(message);
+        }
+    }
 }
\ No newline at end of file
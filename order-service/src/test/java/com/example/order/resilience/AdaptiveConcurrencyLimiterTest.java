@@ -0,0 +1,192 @@
+package com.example.order.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD_MS = 20;
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter("product-service", initialLimit, 1, 10, THRESHOLD_MS, 0.5, 1,
+            e -> e instanceof IllegalStateException && e.getCause() instanceof TimeoutException);
+    }
+
+    // Downstream stub que responde tras la latencia indicada
+    private static Supplier<String> downstream(long latencyMs) {
+        return () -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "ok";
+        };
+    }
+
+    @Test
+    void growsWhenLatencyIsBelowThreshold() {
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        assertEquals("ok", limiter.execute(downstream(0)));
+
+        assertEquals(3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shrinksWhenLatencyExceedsThreshold() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        limiter.execute(downstream(THRESHOLD_MS * 3));
+        assertEquals(4, limiter.getLimit());
+
+        limiter.execute(downstream(THRESHOLD_MS * 3));
+        limiter.execute(downstream(THRESHOLD_MS * 3));
+        limiter.execute(downstream(THRESHOLD_MS * 3));
+        assertEquals(1, limiter.getLimit(), "el límite no baja del mínimo");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void shrinksAndReleasesPermitOnDrop() {
+        AdaptiveConcurrencyLimiter limiter = limiter(4);
+
+        assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+            throw new IllegalStateException("timeout", new TimeoutException());
+        }));
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void businessFailuresReleasePermitWithoutChangingLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8);
+
+        // p. ej. el 500 de Product Service por stock insuficiente en una venta flash
+        for (int i = 0; i < 30; i++) {
+            assertThrows(IllegalStateException.class, () -> limiter.execute(() -> {
+                throw new IllegalStateException("Insufficient stock");
+            }));
+        }
+
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void releasesPermitOnSneakyCheckedException() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+
+        assertThrows(Exception.class, () -> limiter.execute(() -> sneakyThrow(new Exception("checked"))));
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1, limiter.getLimit());
+        assertEquals("ok", limiter.execute(downstream(0)));
+    }
+
+    @Test
+    void releasesPermitOnError() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+
+        assertThrows(AssertionError.class, () -> limiter.execute(() -> {
+            throw new AssertionError("error");
+        }));
+
+        assertEquals(0, limiter.getInFlight());
+        assertEquals("ok", limiter.execute(downstream(0)));
+    }
+
+    @Test
+    void coalescedWaitersHoldPermitsAndExcessCallersAreShed() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("product-service", 3, 1, 10,
+            1_000, 0.5, 1, e -> false);
+        SingleFlight<String, String> flight = new SingleFlight<>("product-catalog", true);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            List<Future<String>> callers = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                callers.add(executor.submit(() -> limiter.admit(() ->
+                    flight.execute("catalog", () -> limiter.observe(() -> {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "catalog";
+                    })))));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (limiter.getInFlight() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(3, limiter.getInFlight(), "líder y seguidores ocupan un permiso cada uno");
+            assertThrows(LoadSheddingException.class, limiter::checkCapacity);
+            assertThrows(LoadSheddingException.class, () -> limiter.admit(() -> "extra"));
+
+            release.countDown();
+            for (Future<String> caller : callers) {
+                assertEquals("catalog", caller.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(0, limiter.getInFlight());
+            assertEquals(1, flight.getExecutions());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, E extends Throwable> T sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    @Test
+    void rejectsWhenLimitIsReachedAndRecoversAfterRelease() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<String> inFlight = executor.submit(() -> limiter.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "ok";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            LoadSheddingException shed = assertThrows(LoadSheddingException.class,
+                () -> limiter.execute(downstream(0)));
+            assertEquals("product-service", shed.getDownstream());
+            assertEquals(1, shed.getRetryAfterSeconds());
+            assertThrows(LoadSheddingException.class, limiter::checkCapacity);
+            assertEquals(2, limiter.getRejected());
+
+            release.countDown();
+            assertEquals("ok", inFlight.get(5, TimeUnit.SECONDS));
+            assertEquals(0, limiter.getInFlight());
+            assertTrue(limiter.hasCapacity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.order.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    @Test
+    void concurrentCallersShareOneExecutionAndResult() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>("catalog", true);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Object shared = new Object();
+
+        List<Object> results = runConcurrently(flight, release, () -> {
+            calls.incrementAndGet();
+            await(release);
+            return shared;
+        });
+
+        assertEquals(1, calls.get());
+        assertEquals(1, flight.getExecutions());
+        assertEquals(CALLERS, flight.getRequests());
+        results.forEach(result -> assertSame(shared, result));
+        assertEquals(1.0 - 1.0 / CALLERS, flight.getCoalescingRatio(), 1e-9);
+    }
+
+    @Test
+    void concurrentCallersShareTheLeaderException() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>("catalog", true);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("downstream caído");
+
+        List<Object> results = runConcurrently(flight, release, () -> {
+            await(release);
+            throw failure;
+        });
+
+        assertEquals(1, flight.getExecutions());
+        results.forEach(result -> assertSame(failure, result));
+    }
+
+    @Test
+    void keyIsReleasedAfterCompletion() {
+        SingleFlight<String, String> flight = new SingleFlight<>("catalog", true);
+
+        assertEquals("first", flight.execute("catalog", () -> "first"));
+        assertThrows(IllegalStateException.class, () -> flight.execute("catalog", () -> {
+            throw new IllegalStateException("error");
+        }));
+        assertEquals("third", flight.execute("catalog", () -> "third"));
+
+        assertEquals(3, flight.getExecutions());
+    }
+
+    @Test
+    void sneakyCheckedExceptionReleasesKeyAndFollowers() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>("catalog", true);
+        CountDownLatch release = new CountDownLatch(1);
+        Exception failure = new Exception("checked");
+
+        List<Object> results = runConcurrently(flight, release, () -> {
+            await(release);
+            return sneakyThrow(failure);
+        });
+
+        assertEquals(1, flight.getExecutions());
+        results.forEach(result -> assertTrue(result == failure
+            || (result instanceof IllegalStateException && ((Throwable) result).getCause() == failure)));
+
+        // La clave quedó libre: el siguiente llamador ejecuta en lugar de colgarse
+        assertEquals("ok", flight.execute("catalog", () -> "ok"));
+        assertEquals(2, flight.getExecutions());
+    }
+
+    @Test
+    void disabledFlightCallsDownstreamEveryTime() throws Exception {
+        SingleFlight<String, Object> flight = new SingleFlight<>("catalog", false);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        runConcurrently(flight, release, () -> {
+            calls.incrementAndGet();
+            await(release);
+            return "ok";
+        });
+
+        assertEquals(CALLERS, calls.get());
+        assertEquals(CALLERS, flight.getExecutions());
+    }
+
+    /**
+     * Lanza CALLERS hilos con la misma clave, libera el latch cuando todos han
+     * entrado en execute y devuelve el resultado o la excepción de cada uno.
+     */
+    private static List<Object> runConcurrently(SingleFlight<String, Object> flight, CountDownLatch release,
+                                                Supplier<Object> call) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> flight.execute("catalog", call)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flight.getRequests() < CALLERS && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(CALLERS, flight.getRequests());
+            // Margen para que los seguidores queden esperando el futuro del líder
+            Thread.sleep(50);
+            release.countDown();
+
+            List<Object> results = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                try {
+                    results.add(future.get(5, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    results.add(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, E extends Throwable> T sneakyThrow(Throwable t) throws E {
+        throw (E) t;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
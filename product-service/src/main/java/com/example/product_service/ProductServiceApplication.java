@@ -2,8 +2,11 @@ package com.example.product_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import com.example.product_service.model.Product;
 
 @SpringBootApplication
+@RegisterReflectionForBinding(Product.class)
 public class ProductServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProductServiceApplication.class, args);
@@ -0,0 +1,42 @@
+package com.example.product_service.benchmark;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+
+/**
+ * Latencia artificial en /v1/products para las pruebas de carga del limitador
+ * de Order Service. Solo existe con el perfil latency-stub activo.
+ */
+@Component
+@Profile("latency-stub")
+public class LatencyStubFilter extends OncePerRequestFilter {
+
+    private final long latencyMs;
+
+    public LatencyStubFilter(@Value("${product.stub.latency-ms}") long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/v1/products");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        chain.doFilter(request, response);
+    }
+}
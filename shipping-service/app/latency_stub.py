@@ -0,0 +1,18 @@
+"""
+Punto de entrada solo para pruebas de carga del limitador de Order Service:
+    uvicorn app.latency_stub:app --host 0.0.0.0 --port 8082
+Añade una latencia artificial a todas las peticiones. La imagen por defecto
+sigue arrancando app.main:app sin este middleware.
+"""
+import asyncio
+import os
+
+from app.main import app
+
+STUB_LATENCY_MS = float(os.getenv("SHIPPING_STUB_LATENCY_MS", "800"))
+
+
+@app.middleware("http")
+async def inject_latency(request, call_next):
+    await asyncio.sleep(STUB_LATENCY_MS / 1000)
+    return await call_next(request)